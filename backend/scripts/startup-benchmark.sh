@@ -0,0 +1,53 @@
+#!/bin/sh
+# Measures time from JVM launch to the first successful request, plain and with AOT + CDS.
+# Build first with: ./mvnw -Paot package   (needs the database from application.properties)
+set -e
+
+cd "$(dirname "$0")/.."
+JAR=target/backend-0.0.1-SNAPSHOT.jar
+APP_DIR=target/cds-app
+URL=${URL:-http://localhost:8080/api/warehouses}
+RUNS=${RUNS:-3}
+
+if [ ! -f "$JAR" ]; then
+    echo "Missing $JAR, run ./mvnw -Paot package first" >&2
+    exit 1
+fi
+
+if [ ! -f "$APP_DIR/app.jsa" ]; then
+    rm -rf "$APP_DIR"
+    java -Djarmode=tools -jar "$JAR" extract --destination "$APP_DIR"
+    java -XX:ArchiveClassesAtExit="$APP_DIR/app.jsa" -Dspring.aot.enabled=true -Dspring.context.exit=onRefresh \
+        -jar "$APP_DIR/backend-0.0.1-SNAPSHOT.jar" > /dev/null
+fi
+
+now_ms() {
+    echo $(($(date +%s%N) / 1000000))
+}
+
+# time_to_first_request <label> <java args...>
+time_to_first_request() {
+    label=$1
+    shift
+    start=$(now_ms)
+    java "$@" > /dev/null 2>&1 &
+    pid=$!
+    until [ "$(curl -s -o /dev/null -w '%{http_code}' "$URL")" = "200" ]; do
+        if ! kill -0 "$pid" 2> /dev/null; then
+            echo "$label: application exited before answering" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    echo "$label: first request after $(($(now_ms) - start)) ms"
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+}
+
+i=1
+while [ "$i" -le "$RUNS" ]; do
+    time_to_first_request "plain    #$i" -jar "$JAR"
+    time_to_first_request "aot+cds  #$i" -XX:SharedArchiveFile="$APP_DIR/app.jsa" -Dspring.aot.enabled=true \
+        -jar "$APP_DIR/backend-0.0.1-SNAPSHOT.jar"
+    i=$((i + 1))
+done
@@ -0,0 +1,22 @@
+package com.stockmaster.backend.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class CycleCountConfig {
+
+    // Runs cycle count location blocks; keep the pool well below the JDBC connection pool size
+    @Bean
+    public ThreadPoolTaskExecutor cycleCountExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(256); // blocks beyond this are reported as failed, not queued without limit
+        executor.setThreadNamePrefix("cycle-count-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        return executor;
+    }
+}
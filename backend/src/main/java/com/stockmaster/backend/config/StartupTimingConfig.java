@@ -0,0 +1,56 @@
+package com.stockmaster.backend.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Logs JVM start -> ready and JVM start -> first served request, so AOT/CDS startup runs can be compared.
+// Off by default; scripts/startup-benchmark.sh measures from outside without it. The flag is read at
+// runtime rather than through a bean condition, which AOT processing would fix at build time.
+@Slf4j
+@Configuration
+public class StartupTimingConfig {
+
+    private final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+
+    @Value("${startup.timing.enabled:false}")
+    private boolean enabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void logTimeToReady() {
+        if (!enabled) {
+            return;
+        }
+        log.info("Startup: application ready {} ms after JVM start", System.currentTimeMillis() - jvmStartMillis);
+    }
+
+    @Bean
+    public OncePerRequestFilter firstRequestTimingFilter() {
+        // Starts as "already recorded" when disabled, so each request costs a single volatile read
+        AtomicBoolean recorded = new AtomicBoolean(!enabled);
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                            FilterChain filterChain) throws ServletException, IOException {
+                filterChain.doFilter(request, response);
+                if (!recorded.get() && recorded.compareAndSet(false, true)) {
+                    log.info("Startup: first request ({} {}) completed {} ms after JVM start",
+                            request.getMethod(), request.getRequestURI(),
+                            System.currentTimeMillis() - jvmStartMillis);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,84 @@
+package com.stockmaster.backend.controller;
+
+import com.stockmaster.backend.dto.AvailabilityCheckDto;
+import com.stockmaster.backend.service.StockAvailabilityIndex;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Arrays;
+
+@RestController
+@RequestMapping("/api/availability")
+public class AvailabilityController {
+
+    private final StockAvailabilityIndex index;
+
+    public AvailabilityController(StockAvailabilityIndex index) {
+        this.index = index;
+    }
+
+    // available[i] is true when locationIds[i] holds at least quantities[i] of productIds[i]
+    @PostMapping("/check")
+    public boolean[] check(@RequestBody AvailabilityCheckDto request) {
+        checkLoaded();
+        int[] productIds = orEmpty(request.getProductIds());
+        int[] locationIds = orEmpty(request.getLocationIds());
+        return index.canFill(productIds, locationIds, toMillis(request.getQuantities(), productIds.length));
+    }
+
+    // locations[i] lists every location holding at least quantities[i] of productIds[i]
+    @PostMapping("/locations")
+    public int[][] locations(@RequestBody AvailabilityCheckDto request) {
+        checkLoaded();
+        int[] productIds = orEmpty(request.getProductIds());
+        return index.locationsAbleToFill(productIds, toMillis(request.getQuantities(), productIds.length));
+    }
+
+    // Rebuilds the index from stock_level, e.g. after stock was corrected with manual SQL
+    @PostMapping("/reload")
+    public ResponseEntity<Void> reload() {
+        index.reload();
+        return ResponseEntity.noContent().build();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    private void checkLoaded() {
+        if (!index.isLoaded()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Availability index is still loading");
+        }
+    }
+
+    private static int[] orEmpty(int[] ids) {
+        return ids != null ? ids : new int[0];
+    }
+
+    // Missing quantities default to "any stock at all" (at least one thousandth)
+    private static long[] toMillis(double[] quantities, int length) {
+        long[] millis = new long[length];
+        if (quantities == null) {
+            Arrays.fill(millis, 1);
+            return millis;
+        }
+        if (quantities.length != length) {
+            throw new IllegalArgumentException("productIds and quantities must have the same length");
+        }
+        for (int i = 0; i < length; i++) {
+            // Also catches NaN, which fails every comparison
+            if (!(quantities[i] > 0) || Double.isInfinite(quantities[i])) {
+                throw new IllegalArgumentException("quantities[" + i + "] must be a positive number");
+            }
+            millis[i] = Math.max(1, StockAvailabilityIndex.toMillis(quantities[i]));
+        }
+        return millis;
+    }
+}
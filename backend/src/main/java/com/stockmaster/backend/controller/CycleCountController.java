@@ -0,0 +1,48 @@
+package com.stockmaster.backend.controller;
+
+import com.stockmaster.backend.dto.CycleCountResultDto;
+import com.stockmaster.backend.service.CycleCountService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/cycle-counts")
+public class CycleCountController {
+
+    private final CycleCountService service;
+
+    public CycleCountController(CycleCountService service) {
+        this.service = service;
+    }
+
+    // Body is streamed CSV: locationId,productId,countedQuantity (optional header row).
+    // Stock at a counted location that is missing from the upload is written off unless partial=true.
+    @PostMapping(consumes = {"text/csv", "text/plain"})
+    public ResponseEntity<CycleCountResultDto> upload(InputStream body,
+                                                      @RequestParam(defaultValue = "false") boolean partial)
+            throws IOException {
+        CycleCountResultDto result = service.reconcile(body, partial);
+        int failed = result.getFailedLocationIds().size();
+        if (failed > 0 && failed == result.getLocationsCounted()) {
+            return ResponseEntity.internalServerError().body(result);
+        }
+        // Some blocks were posted; the body says which locations or lines need another look
+        if (failed > 0 || !result.getRejectedLines().isEmpty()) {
+            return ResponseEntity.status(HttpStatus.MULTI_STATUS).body(result);
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badCount(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -0,0 +1,13 @@
+package com.stockmaster.backend.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Parallel arrays, one entry per check; locationIds is omitted when asking which locations can fill each product
+@Data
+@NoArgsConstructor
+public class AvailabilityCheckDto {
+    private int[] productIds;
+    private int[] locationIds;
+    private double[] quantities;
+}
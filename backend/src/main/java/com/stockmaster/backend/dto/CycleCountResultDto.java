@@ -0,0 +1,28 @@
+package com.stockmaster.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Summary of a cycle count upload: what was counted and which adjustments were posted
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CycleCountResultDto {
+    private String reference;
+    private int locationsCounted;
+    private int linesCounted;
+    private int adjustmentsPosted;
+
+    // One ADJUSTMENT operation per location that had at least one difference
+    private List<Long> operationIds;
+
+    // Locations whose block failed and was rolled back; re-upload the count to retry them
+    private List<Integer> failedLocationIds;
+    private List<String> errors;
+
+    // Differences that were skipped because they do not fit the quantity columns
+    private List<String> rejectedLines;
+}
@@ -16,4 +16,9 @@ public class StockLevelId implements Serializable {
     private Integer productId;
     private Integer locationId;
 
+    // Packs the composite key into one long (product in the high 32 bits) for primitive-keyed lookups
+    public static long pack(int productId, int locationId) {
+        return ((long) productId << 32) | (locationId & 0xFFFFFFFFL);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,392 @@
+package com.stockmaster.backend.service;
+
+import com.stockmaster.backend.dto.CycleCountResultDto;
+import com.stockmaster.backend.entity.InventoryOperation;
+import com.stockmaster.backend.entity.Location;
+import com.stockmaster.backend.entity.OperationType;
+import com.stockmaster.backend.repo.InventoryOperationRepository;
+import com.stockmaster.backend.repo.OperationTypeRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Physical inventory reconciliation. Counts are streamed in as CSV lines of
+ * {@code locationId,productId,countedQuantity}, split into blocks of locations, and each block is
+ * locked, diffed against stock_level and posted in its own short transaction, so stock posting
+ * elsewhere is never blocked for the length of the whole count.
+ * <p>
+ * Every location in the upload is treated as fully counted: stock_level rows at that location whose
+ * product is missing from the upload are counted as zero and written off. A partial count (only the
+ * uploaded products) has to be asked for explicitly.
+ * <p>
+ * Differences are applied to stock_level as deltas (counted - on hand) rather than overwriting the
+ * quantity, so concurrent receipts or deliveries are not lost.
+ * <p>
+ * Blocks commit independently. If some fail, the result lists the failed locations; re-uploading the
+ * same count is safe, since already adjusted locations then diff to zero.
+ */
+@Service
+public class CycleCountService {
+
+    private static final int LOCATIONS_PER_BLOCK = 8;
+    private static final int MAX_SCALE = 3;
+    private static final int MAX_INTEGER_DIGITS = 7;
+    private static final List<String> HEADER = List.of("locationid", "productid", "countedquantity");
+
+    // Advisory locks share one key space per database; the first key of pg_advisory_xact_lock(int, int)
+    // names the feature ("cycle-count") and the second is the location id
+    private static final int CYCLE_COUNT_LOCK_SPACE = "cycle-count".hashCode();
+
+    private static final String SELECT_PRODUCT_UOMS =
+            "SELECT id, uom_id FROM product WHERE id = ANY(?)";
+    private static final String SELECT_LOCATION_IDS =
+            "SELECT id FROM location WHERE id = ANY(?)";
+    private static final String LOCK_LOCATION =
+            "SELECT pg_advisory_xact_lock(?, ?)";
+    private static final String SELECT_STOCK_SNAPSHOT =
+            "SELECT sl.product_id, sl.location_id, sl.on_hand_quantity, p.uom_id FROM stock_level sl "
+                    + "JOIN product p ON p.id = sl.product_id WHERE sl.location_id = ANY(?)";
+    private static final String INSERT_LINE =
+            "INSERT INTO operation_line (operation_id, product_id, uom_id, requested_quantity, processed_quantity, notes) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_LEDGER_ENTRY =
+            "INSERT INTO stock_ledger_entry (operation_id, product_id, source_location_id, destination_location_id, "
+                    + "quantity_change, uom_id, transaction_date, reference) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPSERT_STOCK_LEVEL =
+            "INSERT INTO stock_level (product_id, location_id, on_hand_quantity, updated_at) VALUES (?, ?, ?, ?) "
+                    + "ON CONFLICT (product_id, location_id) DO UPDATE "
+                    + "SET on_hand_quantity = stock_level.on_hand_quantity + EXCLUDED.on_hand_quantity, "
+                    + "updated_at = EXCLUDED.updated_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final InventoryOperationRepository operationRepository;
+    private final OperationTypeRepository operationTypeRepository;
+    private final StockAvailabilityIndex availabilityIndex;
+    private final ThreadPoolTaskExecutor blockExecutor;
+
+    public CycleCountService(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             EntityManager entityManager,
+                             InventoryOperationRepository operationRepository,
+                             OperationTypeRepository operationTypeRepository,
+                             StockAvailabilityIndex availabilityIndex,
+                             @Qualifier("cycleCountExecutor") ThreadPoolTaskExecutor blockExecutor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.operationRepository = operationRepository;
+        this.operationTypeRepository = operationTypeRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.blockExecutor = blockExecutor;
+    }
+
+    /**
+     * @param partial when true, only the uploaded products are reconciled; otherwise stock at a counted
+     *                location that is missing from the upload is written off
+     */
+    public CycleCountResultDto reconcile(InputStream csv, boolean partial) throws IOException {
+        // locationId -> (productId -> counted quantity); repeated rows for the same product are summed
+        Map<Integer, Map<Integer, BigDecimal>> counts = readCounts(csv);
+        int linesCounted = counts.values().stream().mapToInt(Map::size).sum();
+
+        OperationType adjustment = operationTypeRepository.findByCode("ADJUSTMENT")
+                .orElseThrow(() -> new RuntimeException("Operation type ADJUSTMENT not found"));
+        Map<Integer, Integer> productUoms = loadProductUoms(counts);
+        checkLocationsExist(counts.keySet());
+
+        String reference = "CC/" + UUID.randomUUID();
+        List<List<Integer>> blocks = partition(new ArrayList<>(counts.keySet()));
+        List<Future<BlockResult>> results = new ArrayList<>();
+        for (List<Integer> block : blocks) {
+            try {
+                results.add(blockExecutor.submitCompletable(
+                        () -> reconcileBlock(block, counts, productUoms, partial, adjustment, reference)));
+            } catch (TaskRejectedException e) {
+                results.add(null); // executor saturated by other uploads; reported as failed below
+            }
+        }
+
+        // Blocks commit independently, so a failed block does not undo the others; report both
+        List<Long> operationIds = new ArrayList<>();
+        List<Integer> failedLocationIds = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        List<String> rejectedLines = new ArrayList<>();
+        for (int i = 0; i < blocks.size(); i++) {
+            if (results.get(i) == null) {
+                failedLocationIds.addAll(blocks.get(i));
+                errors.add("Locations " + blocks.get(i) + ": too many cycle counts running, retry later");
+                continue;
+            }
+            try {
+                BlockResult block = results.get(i).get();
+                operationIds.addAll(block.operationIds());
+                rejectedLines.addAll(block.rejectedLines());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Cycle count " + reference + " interrupted", e);
+            } catch (ExecutionException e) {
+                failedLocationIds.addAll(blocks.get(i));
+                errors.add("Locations " + blocks.get(i) + ": " + e.getCause().getMessage());
+            }
+        }
+
+        return new CycleCountResultDto(reference, counts.size(), linesCounted, operationIds.size(), operationIds,
+                failedLocationIds, errors, rejectedLines);
+    }
+
+    // Outcome of one committed block: its ADJUSTMENT operations and the differences it could not post
+    private record BlockResult(List<Long> operationIds, List<String> rejectedLines) {
+    }
+
+    private BlockResult reconcileBlock(List<Integer> locationIds,
+                                       Map<Integer, Map<Integer, BigDecimal>> counts,
+                                       Map<Integer, Integer> productUoms,
+                                       boolean partial,
+                                       OperationType adjustment,
+                                       String reference) {
+        return transactionTemplate.execute(status -> {
+            // Serialize counts of the same location (e.g. a retried upload) so each one diffs against
+            // stock that already includes the other's adjustment. Ids are sorted, so lock order is stable.
+            for (Integer locationId : locationIds) {
+                jdbcTemplate.query(LOCK_LOCATION, rs -> {
+                }, CYCLE_COUNT_LOCK_SPACE, locationId);
+            }
+
+            Map<Integer, Map<Integer, BigDecimal>> onHand = new HashMap<>();
+            // Units of products that are on hand but were not counted, so their write-off can be posted
+            Map<Integer, Integer> onHandUoms = new HashMap<>();
+            jdbcTemplate.query(SELECT_STOCK_SNAPSHOT,
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("integer", locationIds.toArray())),
+                    rs -> {
+                        onHand.computeIfAbsent(rs.getInt("location_id"), k -> new HashMap<>())
+                                .put(rs.getInt("product_id"), rs.getBigDecimal("on_hand_quantity"));
+                        onHandUoms.put(rs.getInt("product_id"), rs.getInt("uom_id"));
+                    });
+
+            List<String> rejectedLines = new ArrayList<>();
+            Map<Integer, Map<Integer, BigDecimal>> differences =
+                    differences(locationIds, counts, onHand, partial, rejectedLines);
+            if (differences.isEmpty()) {
+                return new BlockResult(List.of(), rejectedLines);
+            }
+
+            Instant now = Instant.now();
+            Timestamp postedAt = Timestamp.from(now);
+            List<Long> operationIds = new ArrayList<>();
+            List<Object[]> lines = new ArrayList<>();
+            List<Object[]> ledgerEntries = new ArrayList<>();
+            List<Object[]> stockDeltas = new ArrayList<>();
+
+            for (Map.Entry<Integer, Map<Integer, BigDecimal>> location : differences.entrySet()) {
+                Integer locationId = location.getKey();
+                InventoryOperation operation = new InventoryOperation();
+                operation.setOperationNumber(reference + "/" + locationId);
+                operation.setOperationType(adjustment);
+                operation.setStatus("Done");
+                operation.setSourceLocation(entityManager.getReference(Location.class, locationId));
+                operation.setScheduledDate(LocalDate.now());
+                operation.setValidatedAt(now);
+                operation.setNotes("Cycle count " + reference);
+                Long operationId = operationRepository.save(operation).getId();
+                operationIds.add(operationId);
+
+                for (Map.Entry<Integer, BigDecimal> line : location.getValue().entrySet()) {
+                    Integer productId = line.getKey();
+                    BigDecimal diff = line.getValue();
+                    BigDecimal counted = counts.get(locationId).get(productId);
+                    Integer uomId = counted != null ? productUoms.get(productId) : onHandUoms.get(productId);
+
+                    lines.add(new Object[]{operationId, productId, uomId, diff.abs(), diff.abs(),
+                            counted != null ? "Counted " + counted : "Not found in count"});
+                    ledgerEntries.add(ledgerEntry(operationId, productId, locationId, diff, uomId,
+                            postedAt, operation.getOperationNumber()));
+                    stockDeltas.add(new Object[]{productId, locationId, diff, postedAt});
+                }
+            }
+
+            jdbcTemplate.batchUpdate(INSERT_LINE, lines);
+            jdbcTemplate.batchUpdate(INSERT_LEDGER_ENTRY, ledgerEntries);
+            jdbcTemplate.batchUpdate(UPSERT_STOCK_LEVEL, stockDeltas);
+
+            int[] changedProducts = new int[stockDeltas.size()];
+            int[] changedLocations = new int[stockDeltas.size()];
+            BigDecimal[] changes = new BigDecimal[stockDeltas.size()];
+            for (int i = 0; i < stockDeltas.size(); i++) {
+                changedProducts[i] = (Integer) stockDeltas.get(i)[0];
+                changedLocations[i] = (Integer) stockDeltas.get(i)[1];
+                changes[i] = (BigDecimal) stockDeltas.get(i)[2];
+            }
+            availabilityIndex.applyAfterCommit(changedProducts, changedLocations, changes);
+            return new BlockResult(operationIds, rejectedLines);
+        });
+    }
+
+    /**
+     * locationId -> (productId -> counted - on hand), only for non-zero differences. Unless
+     * {@code partial}, products on hand at a counted location but missing from the count are counted
+     * as zero. Differences too large for the quantity columns are left out and described in
+     * {@code rejectedLines}.
+     */
+    static Map<Integer, Map<Integer, BigDecimal>> differences(List<Integer> locationIds,
+                                                              Map<Integer, Map<Integer, BigDecimal>> counts,
+                                                              Map<Integer, Map<Integer, BigDecimal>> onHand,
+                                                              boolean partial,
+                                                              List<String> rejectedLines) {
+        Map<Integer, Map<Integer, BigDecimal>> differences = new TreeMap<>();
+        for (Integer locationId : locationIds) {
+            Map<Integer, BigDecimal> counted = counts.get(locationId);
+            Map<Integer, BigDecimal> snapshot = onHand.getOrDefault(locationId, Map.of());
+
+            Set<Integer> productIds = new HashSet<>(counted.keySet());
+            if (!partial) {
+                productIds.addAll(snapshot.keySet());
+            }
+            for (Integer productId : productIds) {
+                BigDecimal diff = counted.getOrDefault(productId, BigDecimal.ZERO)
+                        .subtract(snapshot.getOrDefault(productId, BigDecimal.ZERO));
+                if (diff.signum() == 0) {
+                    continue;
+                }
+                if (!fitsColumn(diff)) {
+                    rejectedLines.add("Location " + locationId + ", product " + productId + ": adjustment of "
+                            + diff.toPlainString() + " does not fit NUMERIC(10,3)");
+                    continue;
+                }
+                differences.computeIfAbsent(locationId, k -> new TreeMap<>()).put(productId, diff);
+            }
+        }
+        return differences;
+    }
+
+    // Parameters for INSERT_LEDGER_ENTRY: gains arrive at the location, losses leave it
+    static Object[] ledgerEntry(Long operationId, Integer productId, Integer locationId, BigDecimal diff,
+                                Integer uomId, Timestamp postedAt, String operationNumber) {
+        Integer source = diff.signum() < 0 ? locationId : null;
+        Integer destination = diff.signum() > 0 ? locationId : null;
+        return new Object[]{operationId, productId, source, destination, diff, uomId, postedAt, operationNumber};
+    }
+
+    static Map<Integer, Map<Integer, BigDecimal>> readCounts(InputStream csv) throws IOException {
+        Map<Integer, Map<Integer, BigDecimal>> counts = new HashMap<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8));
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                line = line.substring(1); // UTF-8 byte order mark
+            }
+            line = line.strip();
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] fields = line.split(",");
+            if (lineNumber == 1 && isHeader(fields)) {
+                continue;
+            }
+            if (fields.length != 3) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected locationId,productId,countedQuantity");
+            }
+            try {
+                Integer locationId = Integer.valueOf(fields[0].strip());
+                Integer productId = Integer.valueOf(fields[1].strip());
+                BigDecimal counted = new BigDecimal(fields[2].strip());
+                if (counted.signum() < 0) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": counted quantity cannot be negative");
+                }
+                BigDecimal total = counts.computeIfAbsent(locationId, k -> new HashMap<>())
+                        .merge(productId, counted, BigDecimal::add);
+                if (!fitsColumn(counted) || !fitsColumn(total)) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": counted quantity must have at most "
+                            + MAX_INTEGER_DIGITS + " integer digits and " + MAX_SCALE + " decimal places");
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        }
+        return counts;
+    }
+
+    private static boolean isHeader(String[] fields) {
+        if (fields.length != HEADER.size()) {
+            return false;
+        }
+        for (int i = 0; i < fields.length; i++) {
+            if (!fields[i].strip().equalsIgnoreCase(HEADER.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Quantities are stored as NUMERIC(10,3); anything finer or larger would be rounded or rejected by Postgres
+    static boolean fitsColumn(BigDecimal quantity) {
+        BigDecimal stripped = quantity.stripTrailingZeros();
+        return stripped.scale() <= MAX_SCALE && stripped.precision() - stripped.scale() <= MAX_INTEGER_DIGITS;
+    }
+
+    private Map<Integer, Integer> loadProductUoms(Map<Integer, Map<Integer, BigDecimal>> counts) {
+        Set<Integer> productIds = new HashSet<>();
+        counts.values().forEach(c -> productIds.addAll(c.keySet()));
+
+        Map<Integer, Integer> uoms = new HashMap<>();
+        jdbcTemplate.query(SELECT_PRODUCT_UOMS,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("integer", productIds.toArray())),
+                rs -> {
+                    uoms.put(rs.getInt("id"), rs.getInt("uom_id"));
+                });
+        productIds.removeAll(uoms.keySet());
+        if (!productIds.isEmpty()) {
+            throw new IllegalArgumentException("Unknown product ids in count: " + productIds);
+        }
+        return uoms;
+    }
+
+    private void checkLocationsExist(Set<Integer> locationIds) {
+        List<Integer> found = jdbcTemplate.query(SELECT_LOCATION_IDS,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("integer", locationIds.toArray())),
+                (rs, rowNum) -> rs.getInt("id"));
+        Set<Integer> missing = new HashSet<>(locationIds);
+        found.forEach(missing::remove);
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("Unknown location ids in count: " + missing);
+        }
+    }
+
+    private static List<List<Integer>> partition(List<Integer> locationIds) {
+        locationIds.sort(null);
+        List<List<Integer>> blocks = new ArrayList<>();
+        for (int i = 0; i < locationIds.size(); i += LOCATIONS_PER_BLOCK) {
+            blocks.add(locationIds.subList(i, Math.min(i + LOCATIONS_PER_BLOCK, locationIds.size())));
+        }
+        return blocks;
+    }
+}
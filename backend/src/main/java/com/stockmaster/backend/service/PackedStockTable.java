@@ -0,0 +1,156 @@
+package com.stockmaster.backend.service;
+
+import com.stockmaster.backend.entity.StockLevelId;
+
+import java.util.Arrays;
+
+/**
+ * Storage for {@link StockAvailabilityIndex}. Two open-addressing tables with linear probing:
+ * packed (product, location) -> on-hand millis, and productId -> locations. Entries are never
+ * removed; a location that runs out keeps a zero or negative quantity.
+ * Not thread-safe on its own, callers hold the index lock.
+ */
+final class PackedStockTable {
+
+    // Product ids are positive, so a packed key never has the sign bit set
+    private static final long EMPTY_KEY = Long.MIN_VALUE;
+    private static final int EMPTY_PRODUCT = 0;
+
+    private long[] keys = newKeys(1024);
+    private long[] quantities = new long[1024];
+    private int size;
+
+    private int[] productIds = new int[256];
+    private int[][] productLocations = new int[256][];
+    private int[] productLocationCounts = new int[256];
+    private int productCount;
+
+    long get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            long k = keys[slot];
+            if (k == key) {
+                return quantities[slot];
+            }
+            if (k == EMPTY_KEY) {
+                return 0;
+            }
+        }
+    }
+
+    void add(int productId, int locationId, long deltaMillis) {
+        long key = StockLevelId.pack(productId, locationId);
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            long k = keys[slot];
+            if (k == key) {
+                quantities[slot] += deltaMillis;
+                return;
+            }
+            if (k == EMPTY_KEY) {
+                keys[slot] = key;
+                quantities[slot] = deltaMillis;
+                if (++size * 2 > keys.length) {
+                    rehash();
+                }
+                addLocation(productId, locationId);
+                return;
+            }
+        }
+    }
+
+    int[] locationsOf(int productId) {
+        int slot = productSlot(productId);
+        if (productIds[slot] == EMPTY_PRODUCT) {
+            return new int[0];
+        }
+        return Arrays.copyOf(productLocations[slot], productLocationCounts[slot]);
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    int productCapacity() {
+        return productIds.length;
+    }
+
+    private void addLocation(int productId, int locationId) {
+        int slot = productSlot(productId);
+        if (productIds[slot] == EMPTY_PRODUCT) {
+            productIds[slot] = productId;
+            productLocations[slot] = new int[4];
+            if (++productCount * 2 > productIds.length) {
+                rehashProducts();
+                slot = productSlot(productId);
+            }
+        }
+        int[] locations = productLocations[slot];
+        int n = productLocationCounts[slot];
+        if (n == locations.length) {
+            locations = productLocations[slot] = Arrays.copyOf(locations, n * 2);
+        }
+        locations[n] = locationId;
+        productLocationCounts[slot] = n + 1;
+    }
+
+    private int productSlot(int productId) {
+        int mask = productIds.length - 1;
+        int slot = hash(productId) & mask;
+        while (productIds[slot] != EMPTY_PRODUCT && productIds[slot] != productId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        long[] oldQuantities = quantities;
+        keys = newKeys(oldKeys.length * 2);
+        quantities = new long[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (keys[slot] != EMPTY_KEY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                quantities[slot] = oldQuantities[i];
+            }
+        }
+    }
+
+    private void rehashProducts() {
+        int[] oldIds = productIds;
+        int[][] oldLocations = productLocations;
+        int[] oldCounts = productLocationCounts;
+        productIds = new int[oldIds.length * 2];
+        productLocations = new int[oldIds.length * 2][];
+        productLocationCounts = new int[oldIds.length * 2];
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldIds[i] != EMPTY_PRODUCT) {
+                int slot = productSlot(oldIds[i]);
+                productIds[slot] = oldIds[i];
+                productLocations[slot] = oldLocations[i];
+                productLocationCounts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static long[] newKeys(int capacity) {
+        long[] k = new long[capacity];
+        Arrays.fill(k, EMPTY_KEY);
+        return k;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,229 @@
+package com.stockmaster.backend.service;
+
+import com.stockmaster.backend.entity.StockLevelId;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory copy of stock_level for availability checks. Quantities are held as thousandths
+ * (the column has scale 3) in a {@link PackedStockTable} keyed by {@link StockLevelId#pack},
+ * with a list of locations per product, so a batch of checks never touches the database or boxes.
+ * <p>
+ * Loaded in the background once the application is ready, so neither startup time nor a failed load
+ * depends on the size of stock_level; {@link #isLoaded} stays false until the first load succeeds.
+ * Resynced from stock_level on a schedule (to pick up manual SQL or other instances, and to retry a
+ * failed load), and kept current in between by {@link #applyAfterCommit}, which services call from
+ * the transaction that writes stock_level.
+ */
+@Slf4j
+@Component
+public class StockAvailabilityIndex {
+
+    private static final String SELECT_STOCK_LEVELS =
+            "SELECT product_id, location_id, (on_hand_quantity * 1000)::bigint AS on_hand_millis FROM stock_level";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTransaction;
+
+    // Guards table and pendingDeltas
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private PackedStockTable table = new PackedStockTable();
+    // Non-null while a reload runs: deltas committed after its snapshot, replayed onto the new table
+    private List<long[]> pendingDeltas;
+
+    // Posting transactions hold the read side from commit until their delta is applied, so a reload
+    // can fix its snapshot at a point where every committed delta is already in the table
+    private final ReentrantReadWriteLock postingGate = new ReentrantReadWriteLock();
+
+    private volatile boolean loaded;
+
+    public StockAvailabilityIndex(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadInBackground() {
+        Thread.ofPlatform().name("availability-index-load").daemon().start(() -> {
+            try {
+                reload();
+            } catch (RuntimeException e) {
+                log.error("Availability index load failed; retrying at the next scheduled resync", e);
+            }
+        });
+    }
+
+    @Scheduled(initialDelayString = "${stock.availability.resync-interval:PT15M}",
+            fixedDelayString = "${stock.availability.resync-interval:PT15M}")
+    public synchronized void reload() {
+        PackedStockTable fresh = new PackedStockTable();
+        try {
+            snapshotTransaction.executeWithoutResult(status -> {
+                postingGate.writeLock().lock();
+                try {
+                    // Under REPEATABLE READ the first statement fixes the snapshot for the whole transaction
+                    jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+                    lock.writeLock().lock();
+                    try {
+                        pendingDeltas = new ArrayList<>();
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                } finally {
+                    postingGate.writeLock().unlock();
+                }
+
+                // Autocommit is off inside the transaction, so the driver streams rows in fetch-size batches
+                jdbcTemplate.query(con -> {
+                    var ps = con.prepareStatement(SELECT_STOCK_LEVELS);
+                    ps.setFetchSize(10_000);
+                    return ps;
+                }, rs -> {
+                    fresh.add(rs.getInt(1), rs.getInt(2), rs.getLong(3));
+                });
+            });
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDeltas = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (long[] delta : pendingDeltas) {
+                fresh.add((int) delta[0], (int) delta[1], delta[2]);
+            }
+            table = fresh;
+            loaded = true;
+        } finally {
+            pendingDeltas = null;
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Registers stock_level changes made by the current transaction; they are applied to the index
+     * once it commits and dropped if it rolls back.
+     */
+    public void applyAfterCommit(int[] productIds, int[] locationIds, BigDecimal[] quantityChanges) {
+        long[] deltaMillis = new long[quantityChanges.length];
+        for (int i = 0; i < quantityChanges.length; i++) {
+            deltaMillis[i] = toMillis(quantityChanges[i]);
+        }
+        Lock gate = postingGate.readLock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean gateHeld;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                gate.lock();
+                gateHeld = true;
+            }
+
+            @Override
+            public void afterCommit() {
+                applyDeltas(productIds, locationIds, deltaMillis);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (gateHeld) {
+                    gate.unlock();
+                }
+            }
+        });
+    }
+
+    void applyDeltas(int[] productIds, int[] locationIds, long[] deltaMillis) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < productIds.length; i++) {
+                table.add(productIds[i], locationIds[i], deltaMillis[i]);
+                if (pendingDeltas != null) {
+                    pendingDeltas.add(new long[]{productIds[i], locationIds[i], deltaMillis[i]});
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // For each i: does locationIds[i] hold at least requiredMillis[i] of productIds[i]?
+    public boolean[] canFill(int[] productIds, int[] locationIds, long[] requiredMillis) {
+        if (productIds.length != locationIds.length || productIds.length != requiredMillis.length) {
+            throw new IllegalArgumentException("productIds, locationIds and quantities must have the same length");
+        }
+        boolean[] result = new boolean[productIds.length];
+        lock.readLock().lock();
+        try {
+            PackedStockTable t = table;
+            for (int i = 0; i < productIds.length; i++) {
+                result[i] = t.get(StockLevelId.pack(productIds[i], locationIds[i])) >= requiredMillis[i];
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    // For each product: the locations holding at least the required quantity
+    public int[][] locationsAbleToFill(int[] productIds, long[] requiredMillis) {
+        if (productIds.length != requiredMillis.length) {
+            throw new IllegalArgumentException("productIds and quantities must have the same length");
+        }
+        int[][] result = new int[productIds.length][];
+        lock.readLock().lock();
+        try {
+            PackedStockTable t = table;
+            for (int i = 0; i < productIds.length; i++) {
+                int[] candidates = t.locationsOf(productIds[i]);
+                int[] able = new int[candidates.length];
+                int n = 0;
+                for (int locationId : candidates) {
+                    if (t.get(StockLevelId.pack(productIds[i], locationId)) >= requiredMillis[i]) {
+                        able[n++] = locationId;
+                    }
+                }
+                result[i] = Arrays.copyOf(able, n);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    public static long toMillis(BigDecimal quantity) {
+        return quantity.setScale(3, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static long toMillis(double quantity) {
+        return Math.round(quantity * 1000);
+    }
+}
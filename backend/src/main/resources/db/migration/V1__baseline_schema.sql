@@ -0,0 +1,104 @@
+-- Baseline schema, matching the JPA entities in com.stockmaster.backend.entity.
+-- Databases previously created by ddl-auto=update are baselined at this version (spring.flyway.baseline-on-migrate).
+
+CREATE TABLE warehouse (
+    id        INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name      VARCHAR(150) NOT NULL UNIQUE,
+    code      VARCHAR(50)  NOT NULL UNIQUE,
+    address   TEXT,
+    is_active BOOLEAN      NOT NULL DEFAULT TRUE
+);
+
+CREATE TABLE location (
+    id            INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    warehouse_id  INTEGER      NOT NULL REFERENCES warehouse (id),
+    name          VARCHAR(150) NOT NULL,
+    code          VARCHAR(50)  NOT NULL UNIQUE,
+    location_type VARCHAR(50)  NOT NULL DEFAULT 'STOCK',
+    is_active     BOOLEAN      NOT NULL DEFAULT TRUE,
+    UNIQUE (warehouse_id, name)
+);
+
+CREATE TABLE product_category (
+    id          INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name        VARCHAR(100) NOT NULL UNIQUE,
+    description TEXT,
+    created_at  TIMESTAMP(6) WITH TIME ZONE
+);
+
+CREATE TABLE unit_of_measure (
+    id     INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name   VARCHAR(50) NOT NULL UNIQUE,
+    symbol VARCHAR(10) NOT NULL UNIQUE
+);
+
+CREATE TABLE product (
+    id          INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name        VARCHAR(255)   NOT NULL,
+    sku_code    VARCHAR(100)   NOT NULL UNIQUE,
+    category_id INTEGER REFERENCES product_category (id),
+    uom_id      INTEGER        NOT NULL REFERENCES unit_of_measure (id),
+    sale_price  NUMERIC(10, 2) DEFAULT 0,
+    cost        NUMERIC(10, 2) DEFAULT 0,
+    is_active   BOOLEAN        NOT NULL DEFAULT TRUE,
+    created_at  TIMESTAMP(6) WITH TIME ZONE
+);
+
+CREATE TABLE operation_type (
+    id          INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    code        VARCHAR(50)  NOT NULL UNIQUE,
+    name        VARCHAR(100) NOT NULL,
+    description TEXT
+);
+
+CREATE TABLE inventory_operation (
+    id                      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    operation_number        VARCHAR(100) NOT NULL UNIQUE,
+    operation_type_id       INTEGER      NOT NULL REFERENCES operation_type (id),
+    status                  VARCHAR(50)  NOT NULL,
+    source_location_id      INTEGER REFERENCES location (id),
+    destination_location_id INTEGER REFERENCES location (id),
+    scheduled_date          DATE,
+    validated_at            TIMESTAMP(6) WITH TIME ZONE,
+    responsible_user_id     BIGINT,
+    notes                   TEXT,
+    created_at              TIMESTAMP(6) WITH TIME ZONE
+);
+
+CREATE TABLE operation_line (
+    id                 BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    operation_id       BIGINT         NOT NULL REFERENCES inventory_operation (id),
+    product_id         INTEGER        NOT NULL REFERENCES product (id),
+    uom_id             INTEGER        NOT NULL REFERENCES unit_of_measure (id),
+    requested_quantity NUMERIC(10, 3) NOT NULL,
+    processed_quantity NUMERIC(10, 3) DEFAULT 0,
+    notes              TEXT,
+    UNIQUE (operation_id, product_id)
+);
+
+CREATE TABLE stock_ledger_entry (
+    id                      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    operation_id            BIGINT REFERENCES inventory_operation (id),
+    product_id              INTEGER        NOT NULL REFERENCES product (id),
+    source_location_id      INTEGER REFERENCES location (id),
+    destination_location_id INTEGER REFERENCES location (id),
+    quantity_change         NUMERIC(10, 3) NOT NULL,
+    uom_id                  INTEGER        NOT NULL REFERENCES unit_of_measure (id),
+    transaction_date        TIMESTAMP(6) WITH TIME ZONE,
+    reference               VARCHAR(255)
+);
+
+CREATE TABLE stock_level (
+    product_id       INTEGER        NOT NULL REFERENCES product (id),
+    location_id      INTEGER        NOT NULL REFERENCES location (id),
+    on_hand_quantity NUMERIC(10, 3) NOT NULL DEFAULT 0,
+    updated_at       TIMESTAMP(6) WITH TIME ZONE,
+    PRIMARY KEY (product_id, location_id)
+);
+
+CREATE TABLE internal_transfer (
+    id                INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    from_warehouse_id INTEGER     NOT NULL REFERENCES warehouse (id),
+    to_warehouse_id   INTEGER     NOT NULL REFERENCES warehouse (id),
+    status            VARCHAR(20) NOT NULL
+);
@@ -0,0 +1,19 @@
+-- Lookup indexes for stock and operation queries. The stock_level primary key already
+-- leads with product_id, so only the per-location and low-stock access paths are added.
+
+CREATE INDEX IF NOT EXISTS idx_stock_level_location ON stock_level (location_id, product_id);
+CREATE INDEX IF NOT EXISTS idx_stock_level_on_hand ON stock_level (on_hand_quantity);
+
+-- Move history per product, newest first
+CREATE INDEX IF NOT EXISTS idx_ledger_product_date ON stock_ledger_entry (product_id, transaction_date DESC);
+CREATE INDEX IF NOT EXISTS idx_ledger_operation ON stock_ledger_entry (operation_id);
+CREATE INDEX IF NOT EXISTS idx_ledger_source_location ON stock_ledger_entry (source_location_id);
+CREATE INDEX IF NOT EXISTS idx_ledger_destination_location ON stock_ledger_entry (destination_location_id);
+
+-- Dashboard filters: document type + status, and scheduled work
+CREATE INDEX IF NOT EXISTS idx_operation_type_status ON inventory_operation (operation_type_id, status);
+CREATE INDEX IF NOT EXISTS idx_operation_status_scheduled ON inventory_operation (status, scheduled_date);
+CREATE INDEX IF NOT EXISTS idx_operation_source_location ON inventory_operation (source_location_id);
+CREATE INDEX IF NOT EXISTS idx_operation_destination_location ON inventory_operation (destination_location_id);
+
+CREATE INDEX IF NOT EXISTS idx_operation_line_product ON operation_line (product_id);
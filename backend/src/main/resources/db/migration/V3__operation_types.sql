@@ -0,0 +1,8 @@
+-- Operation types referenced by code from the services (e.g. cycle count posts ADJUSTMENT operations)
+
+INSERT INTO operation_type (code, name, description) VALUES
+    ('RECEIPT', 'Receipt', 'Incoming stock from vendors'),
+    ('DELIVERY', 'Delivery Order', 'Outgoing stock for customer shipments'),
+    ('TRANSFER', 'Internal Transfer', 'Stock moved between locations'),
+    ('ADJUSTMENT', 'Inventory Adjustment', 'Correction of recorded stock to the physical count')
+ON CONFLICT (code) DO NOTHING;
@@ -0,0 +1,169 @@
+package com.stockmaster.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CycleCountServiceTest {
+
+    private static InputStream csv(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void readCountsSkipsHeaderAndBlankLines() throws IOException {
+        Map<Integer, Map<Integer, BigDecimal>> counts = CycleCountService.readCounts(csv(
+                "locationId,productId,countedQuantity\n1,10,5\n\n2,20,7.5\n"));
+
+        assertEquals(2, counts.size());
+        assertEquals(0, new BigDecimal("5").compareTo(counts.get(1).get(10)));
+        assertEquals(0, new BigDecimal("7.5").compareTo(counts.get(2).get(20)));
+    }
+
+    @Test
+    void readCountsSkipsHeaderAfterByteOrderMarkIgnoringCase() throws IOException {
+        Map<Integer, Map<Integer, BigDecimal>> counts = CycleCountService.readCounts(csv(
+                "\uFEFFLOCATIONID, productId ,CountedQuantity\n1,10,5\n"));
+
+        assertEquals(1, counts.size());
+        assertEquals(0, new BigDecimal("5").compareTo(counts.get(1).get(10)));
+    }
+
+    @Test
+    void readCountsParsesFirstRowWhenThereIsNoHeader() throws IOException {
+        Map<Integer, Map<Integer, BigDecimal>> counts = CycleCountService.readCounts(csv("\uFEFF+1,10,5\n1,11,2\n"));
+
+        assertEquals(0, new BigDecimal("5").compareTo(counts.get(1).get(10)));
+        assertEquals(0, new BigDecimal("2").compareTo(counts.get(1).get(11)));
+    }
+
+    @Test
+    void readCountsRejectsUnrecognisedFirstRow() {
+        assertThrows(IllegalArgumentException.class,
+                () -> CycleCountService.readCounts(csv("\"1\",\"10\",\"5\"\n1,11,2\n")));
+        assertThrows(IllegalArgumentException.class,
+                () -> CycleCountService.readCounts(csv("location,product,qty\n1,11,2\n")));
+    }
+
+    @Test
+    void readCountsSumsRepeatedRows() throws IOException {
+        Map<Integer, Map<Integer, BigDecimal>> counts = CycleCountService.readCounts(csv("1,10,5\n1,10,2.5\n1,11,1\n"));
+
+        assertEquals(0, new BigDecimal("7.5").compareTo(counts.get(1).get(10)));
+        assertEquals(0, BigDecimal.ONE.compareTo(counts.get(1).get(11)));
+    }
+
+    @Test
+    void readCountsRejectsNegativeQuantity() {
+        assertThrows(IllegalArgumentException.class, () -> CycleCountService.readCounts(csv("1,10,-1\n")));
+    }
+
+    @Test
+    void readCountsRejectsMalformedRows() {
+        assertThrows(IllegalArgumentException.class, () -> CycleCountService.readCounts(csv("1,10\n")));
+        assertThrows(IllegalArgumentException.class, () -> CycleCountService.readCounts(csv("1,abc,5\n")));
+        assertThrows(IllegalArgumentException.class, () -> CycleCountService.readCounts(csv("1,10,five\n")));
+    }
+
+    @Test
+    void readCountsRejectsQuantitiesThatDoNotFitTheColumn() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> CycleCountService.readCounts(csv("1,10,1.2344\n")));
+        assertThrows(IllegalArgumentException.class, () -> CycleCountService.readCounts(csv("1,10,12345678\n")));
+        assertThrows(IllegalArgumentException.class,
+                () -> CycleCountService.readCounts(csv("1,10,9999999\n1,10,1\n")));
+
+        // Trailing zeros beyond three places are harmless
+        assertEquals(0, new BigDecimal("1.234").compareTo(
+                CycleCountService.readCounts(csv("1,10,1.23400\n")).get(1).get(10)));
+    }
+
+    @Test
+    void differencesSkipZeroAndTreatMissingStockAsZero() {
+        Map<Integer, Map<Integer, BigDecimal>> counts = Map.of(
+                1, Map.of(10, new BigDecimal("5"), 11, new BigDecimal("3.000"), 12, new BigDecimal("4")),
+                2, Map.of(10, new BigDecimal("2")));
+        Map<Integer, Map<Integer, BigDecimal>> onHand = Map.of(
+                1, Map.of(10, new BigDecimal("8"), 11, new BigDecimal("3")),
+                2, Map.of(10, new BigDecimal("2.000")));
+
+        List<String> rejected = new ArrayList<>();
+        Map<Integer, Map<Integer, BigDecimal>> differences =
+                CycleCountService.differences(List.of(1, 2), counts, onHand, false, rejected);
+
+        assertTrue(rejected.isEmpty());
+        assertEquals(1, differences.size());
+        assertEquals(2, differences.get(1).size());
+        assertEquals(0, new BigDecimal("-3").compareTo(differences.get(1).get(10)));
+        assertEquals(0, new BigDecimal("4").compareTo(differences.get(1).get(12)));
+    }
+
+    @Test
+    void differencesWriteOffStockMissingFromTheCount() {
+        Map<Integer, Map<Integer, BigDecimal>> counts = Map.of(1, Map.of(10, new BigDecimal("5")));
+        Map<Integer, Map<Integer, BigDecimal>> onHand = Map.of(
+                1, Map.of(10, new BigDecimal("5"), 11, new BigDecimal("4"), 12, BigDecimal.ZERO),
+                // Not part of the upload, so never touched
+                2, Map.of(10, new BigDecimal("9")));
+
+        Map<Integer, Map<Integer, BigDecimal>> differences =
+                CycleCountService.differences(List.of(1), counts, onHand, false, new ArrayList<>());
+
+        assertEquals(Map.of(1, Map.of(11, new BigDecimal("-4"))), differences);
+    }
+
+    @Test
+    void partialCountLeavesUncountedStockAlone() {
+        Map<Integer, Map<Integer, BigDecimal>> counts = Map.of(1, Map.of(10, new BigDecimal("3")));
+        Map<Integer, Map<Integer, BigDecimal>> onHand = Map.of(
+                1, Map.of(10, new BigDecimal("5"), 11, new BigDecimal("4")));
+
+        Map<Integer, Map<Integer, BigDecimal>> differences =
+                CycleCountService.differences(List.of(1), counts, onHand, true, new ArrayList<>());
+
+        assertEquals(Map.of(1, Map.of(10, new BigDecimal("-2"))), differences);
+    }
+
+    @Test
+    void differencesTooLargeForTheColumnAreRejectedNotPosted() {
+        Map<Integer, Map<Integer, BigDecimal>> counts = Map.of(
+                1, Map.of(10, new BigDecimal("9999999"), 11, new BigDecimal("1")));
+        Map<Integer, Map<Integer, BigDecimal>> onHand = Map.of(
+                1, Map.of(10, new BigDecimal("-5.000")));
+
+        List<String> rejected = new ArrayList<>();
+        Map<Integer, Map<Integer, BigDecimal>> differences =
+                CycleCountService.differences(List.of(1), counts, onHand, false, rejected);
+
+        assertEquals(Map.of(1, Map.of(11, new BigDecimal("1"))), differences);
+        assertEquals(1, rejected.size());
+        assertTrue(rejected.get(0).contains("product 10"));
+    }
+
+    @Test
+    void ledgerEntryUsesSourceForLossAndDestinationForGain() {
+        Timestamp now = new Timestamp(0);
+
+        Object[] loss = CycleCountService.ledgerEntry(100L, 10, 1, new BigDecimal("-3"), 5, now, "CC/x/1");
+        assertEquals(1, loss[2]);
+        assertNull(loss[3]);
+        assertTrue(((BigDecimal) loss[4]).signum() < 0);
+
+        Object[] gain = CycleCountService.ledgerEntry(100L, 10, 1, new BigDecimal("2"), 5, now, "CC/x/1");
+        assertNull(gain[2]);
+        assertEquals(1, gain[3]);
+        assertTrue(((BigDecimal) gain[4]).signum() > 0);
+    }
+}
@@ -0,0 +1,74 @@
+package com.stockmaster.backend.service;
+
+import com.stockmaster.backend.entity.StockLevelId;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PackedStockTableTest {
+
+    @Test
+    void lookupsSurviveGrowthPastBothResizeThresholds() {
+        PackedStockTable table = new PackedStockTable();
+        int initialCapacity = table.capacity();
+        int initialProductCapacity = table.productCapacity();
+
+        // 400 products x 10 locations: well past half of both initial tables
+        for (int product = 1; product <= 400; product++) {
+            for (int location = 1; location <= 10; location++) {
+                table.add(product, location, product * 1000L + location);
+            }
+        }
+
+        assertTrue(table.capacity() > initialCapacity);
+        assertTrue(table.productCapacity() > initialProductCapacity);
+        for (int product = 1; product <= 400; product++) {
+            for (int location = 1; location <= 10; location++) {
+                assertEquals(product * 1000L + location, table.get(StockLevelId.pack(product, location)));
+            }
+            int[] locations = table.locationsOf(product);
+            Arrays.sort(locations);
+            assertArrayEquals(new int[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10}, locations);
+        }
+    }
+
+    @Test
+    void deltasAccumulateAndMayReachZeroOrBelow() {
+        PackedStockTable table = new PackedStockTable();
+        long key = StockLevelId.pack(7, 3);
+
+        table.add(7, 3, 5_000);
+        table.add(7, 3, -5_000);
+        assertEquals(0, table.get(key));
+
+        table.add(7, 3, -250);
+        assertEquals(-250, table.get(key));
+
+        // The location stays listed once known, even with nothing on hand
+        assertArrayEquals(new int[]{3}, table.locationsOf(7));
+    }
+
+    @Test
+    void unknownKeysAndProductsAreEmpty() {
+        PackedStockTable table = new PackedStockTable();
+        table.add(1, 1, 1_000);
+
+        assertEquals(0, table.get(StockLevelId.pack(1, 2)));
+        assertEquals(0, table.get(StockLevelId.pack(2, 1)));
+        assertEquals(0, table.locationsOf(99).length);
+    }
+
+    @Test
+    void productAndLocationHalvesOfTheKeyDoNotCollide() {
+        PackedStockTable table = new PackedStockTable();
+        table.add(1, 2, 10);
+        table.add(2, 1, 20);
+
+        assertEquals(10, table.get(StockLevelId.pack(1, 2)));
+        assertEquals(20, table.get(StockLevelId.pack(2, 1)));
+    }
+}
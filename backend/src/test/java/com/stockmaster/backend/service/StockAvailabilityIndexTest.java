@@ -0,0 +1,214 @@
+package com.stockmaster.backend.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StockAvailabilityIndexTest {
+
+    private final StubJdbcTemplate jdbc = new StubJdbcTemplate();
+    private final StockAvailabilityIndex index = new StockAvailabilityIndex(jdbc, new NoOpTransactionManager());
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void canFillComparesAgainstRequiredQuantity() {
+        index.applyDeltas(new int[]{1, 1, 2}, new int[]{10, 11, 10}, new long[]{5_000, 1_000, 0});
+
+        boolean[] result = index.canFill(
+                new int[]{1, 1, 1, 2, 3},
+                new int[]{10, 10, 11, 10, 10},
+                new long[]{5_000, 5_001, 1_000, 1, 1});
+
+        assertArrayEquals(new boolean[]{true, false, true, false, false}, result);
+    }
+
+    @Test
+    void locationsAbleToFillListsOnlyLocationsWithEnoughStock() {
+        index.applyDeltas(new int[]{1, 1, 1}, new int[]{10, 11, 12}, new long[]{5_000, 1_000, 8_000});
+
+        int[][] result = index.locationsAbleToFill(new int[]{1, 4}, new long[]{2_000, 1});
+
+        Arrays.sort(result[0]);
+        assertArrayEquals(new int[]{10, 12}, result[0]);
+        assertArrayEquals(new int[0], result[1]);
+    }
+
+    @Test
+    void canFillRejectsLengthMismatch() {
+        assertThrows(IllegalArgumentException.class,
+                () -> index.canFill(new int[]{1, 2}, new int[]{1}, new long[]{1, 1}));
+        assertThrows(IllegalArgumentException.class,
+                () -> index.canFill(new int[]{1, 2}, new int[]{1, 2}, new long[]{1}));
+    }
+
+    @Test
+    void locationsAbleToFillRejectsLengthMismatch() {
+        assertThrows(IllegalArgumentException.class,
+                () -> index.locationsAbleToFill(new int[]{1, 2}, new long[]{1}));
+    }
+
+    @Test
+    void reloadReplacesTableWithStockLevelSnapshot() {
+        index.applyDeltas(new int[]{9}, new int[]{9}, new long[]{1_000});
+        jdbc.rows.add(new long[]{1, 10, 4_000});
+
+        assertFalse(index.isLoaded());
+        index.reload();
+
+        assertTrue(index.isLoaded());
+        assertArrayEquals(new boolean[]{true, false},
+                index.canFill(new int[]{1, 9}, new int[]{10, 9}, new long[]{4_000, 1}));
+    }
+
+    @Test
+    void applyAfterCommitAppliesOnCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        index.applyAfterCommit(new int[]{1}, new int[]{10}, new BigDecimal[]{new BigDecimal("2.5")});
+
+        // Nothing is visible until the transaction commits
+        assertFalse(index.canFill(new int[]{1}, new int[]{10}, new long[]{1})[0]);
+        commit();
+
+        assertTrue(index.canFill(new int[]{1}, new int[]{10}, new long[]{2_500})[0]);
+        // The posting gate was released, so a reload is not blocked
+        assertTimeoutPreemptively(Duration.ofSeconds(5), index::reload);
+    }
+
+    @Test
+    void applyAfterCommitDropsChangesOnRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+        index.applyAfterCommit(new int[]{1}, new int[]{10}, new BigDecimal[]{new BigDecimal("2.5")});
+        rollback();
+
+        assertFalse(index.canFill(new int[]{1}, new int[]{10}, new long[]{1})[0]);
+        assertTimeoutPreemptively(Duration.ofSeconds(5), index::reload);
+    }
+
+    @Test
+    void deltaCommittedDuringReloadSurvivesTheSwap() {
+        jdbc.rows.add(new long[]{1, 10, 4_000});
+        // Commits after the reload fixed its snapshot, while stock_level rows are still streaming
+        jdbc.duringLoad = () -> {
+            TransactionSynchronizationManager.initSynchronization();
+            index.applyAfterCommit(new int[]{1, 2}, new int[]{10, 10},
+                    new BigDecimal[]{new BigDecimal("1"), new BigDecimal("3")});
+            commit();
+        };
+
+        index.reload();
+
+        assertArrayEquals(new boolean[]{true, false, true},
+                index.canFill(new int[]{1, 1, 2}, new int[]{10, 10, 10}, new long[]{5_000, 5_001, 3_000}));
+    }
+
+    @Test
+    void failedReloadKeepsTheCurrentTable() {
+        index.applyDeltas(new int[]{1}, new int[]{10}, new long[]{1_000});
+        jdbc.duringLoad = () -> {
+            throw new IllegalStateException("connection lost");
+        };
+
+        assertThrows(IllegalStateException.class, index::reload);
+
+        assertFalse(index.isLoaded());
+        assertTrue(index.canFill(new int[]{1}, new int[]{10}, new long[]{1_000})[0]);
+
+        // The next resync recovers
+        jdbc.duringLoad = () -> {
+        };
+        jdbc.rows.add(new long[]{1, 10, 7_000});
+        index.reload();
+        assertTrue(index.isLoaded());
+        assertTrue(index.canFill(new int[]{1}, new int[]{10}, new long[]{7_000})[0]);
+    }
+
+    private static void commit() {
+        TransactionSynchronizationUtils.triggerBeforeCommit(false);
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private static void rollback() {
+        TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    // Serves stock_level rows as (product_id, location_id, on_hand_millis) and runs duringLoad first
+    private static final class StubJdbcTemplate extends JdbcTemplate {
+        final List<long[]> rows = new ArrayList<>();
+        Runnable duringLoad = () -> {
+        };
+
+        @Override
+        public <T> T queryForObject(String sql, Class<T> requiredType) {
+            return requiredType.cast(1);
+        }
+
+        @Override
+        public void query(PreparedStatementCreator psc, RowCallbackHandler rch) {
+            duringLoad.run();
+            for (long[] row : rows) {
+                try {
+                    rch.processRow(resultSet(row));
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+
+        private static ResultSet resultSet(long[] row) {
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "getInt" -> (int) row[(Integer) args[0] - 1];
+                        case "getLong" -> row[(Integer) args[0] - 1];
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+    }
+
+    private static final class NoOpTransactionManager implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}